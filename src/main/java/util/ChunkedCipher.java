@@ -0,0 +1,318 @@
+package util;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.IntStream;
+
+/**
+ * Authenticated, seekable alternative to the XOR cipher of {@link ConsoleParser.Ciphxor}.
+ * <p>
+ * The input is split into fixed-size chunks, every chunk is encrypted with AES-GCM (AES-CTR plus a 16-byte tag)
+ * under its own nonce {@code prefix || chunkIndex}. Container layout:
+ * <pre>
+ * magic "CXR1" | chunk size (int) | nonce prefix (8 bytes) | plaintext length (long) | chunk 0 + tag | chunk 1 + tag | ...
+ * </pre>
+ * The header is passed to every chunk as additional authenticated data, so a modified header, a swapped,
+ * altered or missing chunk is always detected. Because chunks are independent, any byte range can be decrypted
+ * by reading only the chunks that cover it, and whole files are processed in parallel.
+ */
+
+public class ChunkedCipher {
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[] MAGIC = {'C', 'X', 'R', '1'};
+    private static final int NONCE_PREFIX_SIZE = 8;
+    private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + NONCE_PREFIX_SIZE + Long.BYTES;
+    private static final int TAG_SIZE = 16;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private final SecretKeySpec key;
+    private final int chunkSize;
+
+    public ChunkedCipher(String hexKey) {
+        this(hexKey, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param hexKey AES key in hexadecimal system, exactly 16, 24 or 32 bytes; used as is.
+     * @param chunkSize size of a plaintext chunk in bytes.
+     */
+
+    public ChunkedCipher(String hexKey, int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Wrong chunk size: " + chunkSize);
+        this.key = parseKey(hexKey);
+        this.chunkSize = chunkSize;
+    }
+
+    public void encrypt(Path in, Path out) throws IOException {
+        writeAtomically(out, tmp -> {
+            try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+                 FileChannel dst = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                byte[] noncePrefix = new byte[NONCE_PREFIX_SIZE];
+                new SecureRandom().nextBytes(noncePrefix);
+                Header header = new Header(chunkSize, noncePrefix, src.size());
+                writeFully(dst, ByteBuffer.wrap(header.bytes), 0);
+
+                runChunks(header.chunkCount(), i -> {
+                    int length = header.plainChunkLength(i);
+                    ByteBuffer plain = ByteBuffer.allocate(length);
+                    readFully(src, plain, (long) i * header.chunkSize);
+                    byte[] sealed = crypt(Cipher.ENCRYPT_MODE, header, i, plain.array());
+                    writeFully(dst, ByteBuffer.wrap(sealed), header.sealedChunkPosition(i));
+                });
+            }
+        });
+    }
+
+    /**
+     * The plaintext appears at {@code out} only after every chunk has been authenticated;
+     * on failure {@code out} is left untouched.
+     */
+
+    public void decrypt(Path in, Path out) throws IOException {
+        writeAtomically(out, tmp -> {
+            try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+                 FileChannel dst = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                Header header = readHeader(src);
+                runChunks(header.chunkCount(), i -> {
+                    byte[] plain = openChunk(src, header, i);
+                    writeFully(dst, ByteBuffer.wrap(plain), (long) i * header.chunkSize);
+                });
+            }
+        });
+    }
+
+    /**
+     * Decrypts {@code length} bytes starting at plaintext position {@code offset} into memory;
+     * for small ranges, see {@link #decryptRange(Path, long, long, OutputStream)} for large ones.
+     */
+
+    public byte[] decryptRange(Path in, long offset, int length) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(Math.max(0, length));
+        decryptRange(in, offset, length, result);
+        return result.toByteArray();
+    }
+
+    /**
+     * Same as {@link #decryptRange(Path, long, long, OutputStream)}, but the range appears at {@code out}
+     * only after all of its chunks have been authenticated.
+     */
+
+    public void decryptRange(Path in, long offset, long length, Path out) throws IOException {
+        writeAtomically(out, tmp -> {
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                decryptRange(in, offset, length, os);
+            }
+        });
+    }
+
+    /**
+     * Streams {@code length} bytes starting at plaintext position {@code offset} to {@code out}.
+     * Only the chunks covering the range are read; they are decrypted in parallel batches of one chunk per core
+     * and written in order, so memory use does not depend on the range length. Every chunk is authenticated
+     * before it is written, but if a later chunk fails, the earlier ones have already been written.
+     */
+
+    public void decryptRange(Path in, long offset, long length, OutputStream out) throws IOException {
+        try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ)) {
+            Header header = readHeader(src);
+            if (offset < 0 || length < 0 || offset > header.plaintextLength - length)
+                throw new IllegalArgumentException("Wrong range: offset " + offset + ", length " + length
+                        + " (plaintext length is " + header.plaintextLength + ")");
+            if (length == 0) return;
+
+            long end = offset + length;
+            int first = (int) (offset / header.chunkSize);
+            int last = (int) ((end - 1) / header.chunkSize);
+            int batch = Runtime.getRuntime().availableProcessors();
+            for (int from = first; from <= last; from += batch) {
+                int batchStart = from;
+                byte[][] plain = new byte[Math.min(batch, last - from + 1)][];
+                runChunks(plain.length, k -> plain[k] = openChunk(src, header, batchStart + k));
+
+                for (int k = 0; k < plain.length; k++) {
+                    long chunkStart = (long) (batchStart + k) * header.chunkSize;
+                    int fromInChunk = (int) (Math.max(offset, chunkStart) - chunkStart);
+                    int toInChunk = (int) (Math.min(end, chunkStart + plain[k].length) - chunkStart);
+                    out.write(plain[k], fromInChunk, toInChunk - fromInChunk);
+                }
+            }
+        }
+    }
+
+    public long plaintextLength(Path in) throws IOException {
+        try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ)) {
+            return readHeader(src).plaintextLength;
+        }
+    }
+
+    private byte[] openChunk(FileChannel src, Header header, int i) throws IOException {
+        ByteBuffer sealed = ByteBuffer.allocate(header.plainChunkLength(i) + TAG_SIZE);
+        readFully(src, sealed, header.sealedChunkPosition(i));
+        return crypt(Cipher.DECRYPT_MODE, header, i, sealed.array());
+    }
+
+    private byte[] crypt(int mode, Header header, int chunkIndex, byte[] data) throws IOException {
+        byte[] nonce = ByteBuffer.allocate(NONCE_PREFIX_SIZE + Integer.BYTES)
+                .put(header.noncePrefix)
+                .putInt(chunkIndex)
+                .array();
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, key, new GCMParameterSpec(TAG_SIZE * 8, nonce));
+            cipher.updateAAD(header.bytes);
+            return cipher.doFinal(data);
+        } catch (AEADBadTagException e) {
+            throw new IOException("Chunk " + chunkIndex + " failed authentication: wrong key or corrupted data.", e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Header readHeader(FileChannel src) throws IOException {
+        if (src.size() < HEADER_SIZE) throw new IOException("Not a chunked cipher container: file is too short.");
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(src, buffer, 0);
+        buffer.flip();
+
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a chunked cipher container: wrong magic.");
+        int size = buffer.getInt();
+        byte[] noncePrefix = new byte[NONCE_PREFIX_SIZE];
+        buffer.get(noncePrefix);
+        long plaintextLength = buffer.getLong();
+        if (size <= 0 || plaintextLength < 0) throw new IOException("Corrupted container header.");
+
+        Header header = new Header(size, noncePrefix, plaintextLength);
+        long expected = HEADER_SIZE + plaintextLength + (long) header.chunkCount() * TAG_SIZE;
+        if (src.size() != expected)
+            throw new IOException("Truncated or corrupted container: expected " + expected
+                    + " bytes, found " + src.size() + ".");
+        return header;
+    }
+
+    private static SecretKeySpec parseKey(String hexKey) {
+        byte[] bytes;
+        try {
+            bytes = HexFormat.of().parseHex(hexKey);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("AES key must be a hexadecimal number: '" + hexKey + "'", e);
+        }
+        if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32)
+            throw new IllegalArgumentException("AES key must be 16, 24 or 32 bytes (32, 48 or 64 hex digits), got "
+                    + bytes.length + " bytes.");
+        return new SecretKeySpec(bytes, "AES");
+    }
+
+    /**
+     * Writes into a temporary file next to {@code out} and moves it into place only if {@code task} succeeds,
+     * so a failed run never leaves partial data at {@code out}.
+     */
+
+    private static void writeAtomically(Path out, FileTask task) throws IOException {
+        Path target = out.toAbsolutePath();
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+        try {
+            task.run(tmp);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new IOException("Unexpected end of file at position " + (position + buffer.position()));
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Runs the chunk task for every index in {@code [0, count)} on the common fork-join pool.
+     * Positional channel reads and writes are safe to use concurrently.
+     */
+
+    private static void runChunks(int count, ChunkTask task) throws IOException {
+        try {
+            IntStream.range(0, count).parallel().forEach(i -> {
+                try {
+                    task.run(i);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface ChunkTask {
+        void run(int chunkIndex) throws IOException;
+    }
+
+    private interface FileTask {
+        void run(Path file) throws IOException;
+    }
+
+    private static class Header {
+        final int chunkSize;
+        final byte[] noncePrefix;
+        final long plaintextLength;
+        final byte[] bytes;
+
+        Header(int chunkSize, byte[] noncePrefix, long plaintextLength) {
+            this.chunkSize = chunkSize;
+            this.noncePrefix = noncePrefix;
+            this.plaintextLength = plaintextLength;
+            this.bytes = ByteBuffer.allocate(HEADER_SIZE)
+                    .put(MAGIC)
+                    .putInt(chunkSize)
+                    .put(noncePrefix)
+                    .putLong(plaintextLength)
+                    .array();
+        }
+
+        /**
+         * An empty file still gets one (empty) authenticated chunk, so its header is verified too.
+         */
+
+        int chunkCount() {
+            long count = Math.max(1, (plaintextLength + chunkSize - 1) / chunkSize);
+            if (count > Integer.MAX_VALUE) throw new IllegalArgumentException("File is too large for chunk size " + chunkSize);
+            return (int) count;
+        }
+
+        int plainChunkLength(int chunkIndex) {
+            return (int) Math.min(chunkSize, plaintextLength - (long) chunkIndex * chunkSize);
+        }
+
+        long sealedChunkPosition(int chunkIndex) {
+            return HEADER_SIZE + (long) chunkIndex * (chunkSize + TAG_SIZE);
+        }
+    }
+}
@@ -29,6 +29,15 @@ public class ConsoleParser {
 
     public static void main(final String[] arguments) {
         try {
+            final Object bean = arguments.length > 0 ? newSubCmd(arguments[0]) : null;
+            if (bean != null) {
+                final SubCmd subCmd = (SubCmd) bean;
+                subCmd.name = arguments[0];
+                if (parseSubCmdArgs(subCmd, Arrays.copyOfRange(arguments, 1, arguments.length))) {
+                    subCmd.execute();
+                }
+                return;
+            }
             final ConsoleParser consoleParser = new ConsoleParser();
             consoleParser.parseArgs(arguments);
             consoleParser.subCmd.execute();
@@ -37,6 +46,29 @@ public class ConsoleParser {
         }
     }
 
+    /**
+     * Fast dispatch: creates only the selected subcommand, so neither the other {@link SubCmd} classes
+     * nor their annotations are loaded. Must stay in sync with {@link #subCmd}'s {@code @SubCommands}
+     * (checked by ConsoleParserTest);
+     * unknown names fall back to the args4j {@link SubCommandHandler} (usage and error reporting).
+     * <p>
+     * The return type is deliberately {@code Object}: returning {@code SubCmd} would make the bytecode
+     * verifier load every subclass when linking {@code ConsoleParser}.
+     *
+     * @return a new subcommand instance or null if the name is unknown.
+     */
+
+    static Object newSubCmd(final String name) {
+        return switch (name) {
+            case "ls" -> new Ls();
+            case "ciphxor" -> new Ciphxor();
+            case "grep" -> new Grep();
+            case "find" -> new Find();
+            case "pack-rle" -> new PackRle();
+            default -> null;
+        };
+    }
+
     public abstract static class SubCmd {
         String name;
 
@@ -238,6 +270,9 @@ public class ConsoleParser {
      * Алгоритм шифрации XOR. Ключ указывается после -c или -d в шестнадцатеричной
      * системе, длина ключа -- любое целое количество байт.
      * Command Line: ciphxor [-c key] [-d key] inputname.txt [-o outputname.txt]
+     * <p>
+     * Флаг -a переключает шифрование с XOR на AES-GCM по блокам (см. {@link ChunkedCipher}):
+     * ciphxor -a [-c key] [-d key [--offset n] [--length n]] inputname.txt [-o outputname.txt]
      * Кроме самой программы, следует написать автоматические тесты к ней.
      */
 
@@ -252,6 +287,21 @@ public class ConsoleParser {
                 forbids = {"-c"})
         private String dKey;
 
+        @Option(name = "-a",
+                aliases = "--aes",
+                usage = "use authenticated AES-GCM chunked encryption instead of XOR; the key must be 16, 24 or 32 bytes (32, 48 or 64 hex digits).")
+        private boolean aes;
+
+        @Option(name = "--offset",
+                usage = "[--offset n] - with '-a -d', decipher starting from the n-th byte of the original file.",
+                depends = {"-a", "-d"})
+        private long offset;
+
+        @Option(name = "--length",
+                usage = "[--length n] - with '-a -d', decipher only n bytes of the original file.",
+                depends = {"-a", "-d"})
+        private Long length;
+
         private String in;
 
         @Option(name = "-o",
@@ -271,6 +321,10 @@ public class ConsoleParser {
         public void execute() {
             try {
                 in = arguments.get(0);
+                if (aes) {
+                    executeAes();
+                    return;
+                }
                 List<String> lines = Files.readAllLines(Path.of(in));
                 String text = String.join("\n", lines);
 
@@ -302,6 +356,36 @@ public class ConsoleParser {
                 e.printStackTrace();
             }
         }
+
+        /**
+         * '-a' mode: see {@link ChunkedCipher}. Without '--offset'/'--length' the whole file is deciphered,
+         * otherwise only the chunks covering the requested range are read.
+         */
+
+        private void executeAes() throws IOException {
+            ChunkedCipher cipher = new ChunkedCipher(cKey != null ? cKey : dKey);
+            if (cKey != null) {
+                Path outputPath;
+                if (out != null) {
+                    outputPath = Path.of(out);
+                } else {
+                    outputPath = Path.of(in.substring(0, in.lastIndexOf(".")) + ".encrypted");
+                }
+                cipher.encrypt(Path.of(in), outputPath);
+            } else if (dKey != null) {
+                if (offset == 0 && length == null && out != null) {
+                    cipher.decrypt(Path.of(in), Path.of(out));
+                    return;
+                }
+                long n = length != null ? length : cipher.plaintextLength(Path.of(in)) - offset;
+                if (out != null) {
+                    cipher.decryptRange(Path.of(in), offset, n, Path.of(out));
+                } else {
+                    cipher.decryptRange(Path.of(in), offset, n, System.out);
+                    System.out.println();
+                }
+            }
+        }
     }
 
     /**
@@ -527,7 +611,7 @@ public class ConsoleParser {
         }
     }
 
-    private void parseArgs(final String[] args) {
+    void parseArgs(final String[] args) {
         final CmdLineParser parser = new CmdLineParser(this);
         if (args.length < 1) {
             parser.printUsage(System.out);
@@ -544,4 +628,22 @@ public class ConsoleParser {
         }
     }
 
+    /**
+     * @return true if the arguments were parsed and the subcommand can be executed.
+     */
+
+    private static boolean parseSubCmdArgs(final SubCmd subCmd, final String[] args) {
+        final CmdLineParser parser = new CmdLineParser(subCmd);
+        try {
+            System.out.println();
+            parser.parseArgument(args);
+            return true;
+        } catch (CmdLineException clEx) {
+            System.out.println("ERROR: Unable to parse command-line options: " + clEx);
+            System.err.println(clEx.getMessage());
+            parser.printUsage(System.err);
+            return false;
+        }
+    }
+
 }
\ No newline at end of file
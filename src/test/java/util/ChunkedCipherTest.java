@@ -0,0 +1,186 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedCipherTest {
+
+    final String KEY = "8f1c2ab47e9d03f65a7b1e2c4d6f8091a3b5c7d9e1f20314253647586978a9bc";
+    final String XOR_KEY = "E10F";
+    final int CHUNK_SIZE = 1024;
+
+    @TempDir
+    Path dir;
+
+    private byte[] randomText(int size) {
+        Random random = new Random(42);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + random.nextInt(26));
+        }
+        return data;
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        ChunkedCipher cipher = new ChunkedCipher(KEY, CHUNK_SIZE);
+        for (int size : new int[]{0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE * 5 + 17}) {
+            byte[] data = randomText(size);
+            Path plain = Files.write(dir.resolve("plain.txt"), data);
+            Path encrypted = dir.resolve("plain.encrypted");
+            Path decrypted = dir.resolve("decrypted.txt");
+
+            cipher.encrypt(plain, encrypted);
+            cipher.decrypt(encrypted, decrypted);
+
+            assertArrayEquals(data, Files.readAllBytes(decrypted), "size " + size);
+            assertEquals(size, cipher.plaintextLength(encrypted));
+        }
+    }
+
+    @Test
+    void testDecryptRange() throws IOException {
+        ChunkedCipher cipher = new ChunkedCipher(KEY, CHUNK_SIZE);
+        byte[] data = randomText(CHUNK_SIZE * 10 + 100);
+        Path plain = Files.write(dir.resolve("plain.txt"), data);
+        Path encrypted = dir.resolve("plain.encrypted");
+        cipher.encrypt(plain, encrypted);
+
+        long[][] ranges = {{0, 10}, {CHUNK_SIZE - 5, 10}, {CHUNK_SIZE * 3, CHUNK_SIZE}, {17, CHUNK_SIZE * 7}, {data.length - 1, 1}, {5, 0}};
+        for (long[] range : ranges) {
+            int from = (int) range[0];
+            int length = (int) range[1];
+            assertArrayEquals(Arrays.copyOfRange(data, from, from + length),
+                    cipher.decryptRange(encrypted, from, length), "range " + from + ", " + length);
+        }
+        assertThrows(IllegalArgumentException.class, () -> cipher.decryptRange(encrypted, data.length - 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> cipher.decryptRange(encrypted, Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    void testDecryptRangeStreaming() throws IOException {
+        ChunkedCipher cipher = new ChunkedCipher(KEY, CHUNK_SIZE);
+        int chunks = Runtime.getRuntime().availableProcessors() * 3 + 1;
+        byte[] data = randomText(CHUNK_SIZE * chunks + 7);
+        Path plain = Files.write(dir.resolve("plain.txt"), data);
+        Path encrypted = dir.resolve("plain.encrypted");
+        cipher.encrypt(plain, encrypted);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        cipher.decryptRange(encrypted, 3, data.length - 3L, stream);
+        assertArrayEquals(Arrays.copyOfRange(data, 3, data.length), stream.toByteArray());
+
+        Path range = dir.resolve("range.txt");
+        cipher.decryptRange(encrypted, CHUNK_SIZE + 1, CHUNK_SIZE * 2L, range);
+        assertArrayEquals(Arrays.copyOfRange(data, CHUNK_SIZE + 1, CHUNK_SIZE * 3 + 1), Files.readAllBytes(range));
+    }
+
+    @Test
+    void testTamperedChunkIsRejected() throws IOException {
+        ChunkedCipher cipher = new ChunkedCipher(KEY, CHUNK_SIZE);
+        Path plain = Files.write(dir.resolve("plain.txt"), randomText(CHUNK_SIZE * 4));
+        Path encrypted = dir.resolve("plain.encrypted");
+        cipher.encrypt(plain, encrypted);
+
+        try (RandomAccessFile file = new RandomAccessFile(encrypted.toFile(), "rw")) {
+            long position = file.length() - CHUNK_SIZE;
+            file.seek(position);
+            int b = file.read();
+            file.seek(position);
+            file.write(b ^ 1);
+        }
+
+        Path decrypted = Files.writeString(dir.resolve("decrypted.txt"), "previous content");
+        assertThrows(IOException.class, () -> cipher.decrypt(encrypted, decrypted));
+        assertEquals("previous content", Files.readString(decrypted));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+        }
+        assertThrows(IOException.class, () -> cipher.decryptRange(encrypted, CHUNK_SIZE * 3, 10));
+        assertDoesNotThrow(() -> cipher.decryptRange(encrypted, 0, CHUNK_SIZE));
+    }
+
+    @Test
+    void testTruncatedContainerAndWrongKeyAreRejected() throws IOException {
+        ChunkedCipher cipher = new ChunkedCipher(KEY, CHUNK_SIZE);
+        Path plain = Files.write(dir.resolve("plain.txt"), randomText(CHUNK_SIZE * 3));
+        Path encrypted = dir.resolve("plain.encrypted");
+        cipher.encrypt(plain, encrypted);
+
+        assertThrows(IOException.class, () -> new ChunkedCipher(KEY.replace('8', '9'), CHUNK_SIZE).decryptRange(encrypted, 0, 1));
+
+        byte[] sealed = Files.readAllBytes(encrypted);
+        Path truncated = Files.write(dir.resolve("truncated.encrypted"), Arrays.copyOf(sealed, sealed.length - 1));
+        assertThrows(IOException.class, () -> cipher.decryptRange(truncated, 0, 1));
+    }
+
+    @Test
+    void testKeyMustBeAesSized() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedCipher(XOR_KEY));
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedCipher(KEY.substring(1)));
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedCipher(KEY.replace('8', 'x')));
+        assertDoesNotThrow(() -> new ChunkedCipher(KEY.substring(0, 32)));
+        assertDoesNotThrow(() -> new ChunkedCipher(KEY.substring(0, 48)));
+    }
+
+    @Test
+    void testCiphxorAesOption() throws IOException {
+        byte[] data = randomText(CHUNK_SIZE * 3);
+        Path plain = Files.write(dir.resolve("secret.txt"), data);
+        Path encrypted = dir.resolve("secret.encrypted");
+        Path decrypted = dir.resolve("decrypted.txt");
+        Path range = dir.resolve("range.txt");
+
+        ConsoleParser.main(new String[]{"ciphxor", "-a", "-c", KEY, plain.toString()});
+        ConsoleParser.main(new String[]{"ciphxor", "-a", "-d", KEY, encrypted.toString(), "-o", decrypted.toString()});
+        ConsoleParser.main(new String[]{"ciphxor", "-a", "-d", KEY, "--offset", "100", "--length", "20",
+                encrypted.toString(), "-o", range.toString()});
+
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 120), Files.readAllBytes(range));
+    }
+
+    /**
+     * Not a strict benchmark: prints the throughput of the XOR path and of the AES path on the same file.
+     * Opt-in, run with 'mvn test -Dbenchmark=true'.
+     */
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void testThroughput() throws IOException {
+        int size = 16 * 1024 * 1024;
+        byte[] data = randomText(size);
+        for (int i = 80; i < size; i += 81) data[i] = '\n';
+        Path plain = Files.write(dir.resolve("big.txt"), data);
+        Path out = dir.resolve("big.encrypted");
+
+        System.out.println("Throughput on " + size / (1024 * 1024) + " MiB:");
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            ConsoleParser.main(new String[]{"ciphxor", "-c", XOR_KEY, plain.toString(), "-o", out.toString()});
+            long xor = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            ConsoleParser.main(new String[]{"ciphxor", "-a", "-c", KEY, plain.toString(), "-o", out.toString()});
+            long aes = System.nanoTime() - start;
+
+            System.out.printf("round %d: xor %.1f MB/s, aes-gcm %.1f MB/s%n", round,
+                    size / (xor / 1e9) / 1e6, size / (aes / 1e9) / 1e6);
+        }
+        assertEquals(new String(data, StandardCharsets.US_ASCII),
+                new String(new ChunkedCipher(KEY).decryptRange(out, 0, size), StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,119 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every check starts a fresh JVM, because startup cost is only visible in a new process.
+ */
+
+class ConsoleParserStartupTest {
+
+    final String JAVA = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    final String CLASS_PATH = System.getProperty("java.class.path");
+    final int RUNS = 15;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * The dispatch used before the fast path: args4j parses the whole {@link ConsoleParser} bean,
+     * so {@code SubCommandHandler} resolves every {@code @SubCommand} class.
+     */
+
+    static class LegacyMain {
+        public static void main(final String[] arguments) {
+            final ConsoleParser consoleParser = new ConsoleParser();
+            consoleParser.parseArgs(arguments);
+            consoleParser.subCmd.execute();
+        }
+    }
+
+    private String run(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+
+    private List<String> command(List<String> jvmOptions, String mainClass, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(JAVA);
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-cp", CLASS_PATH, mainClass));
+        command.addAll(Arrays.asList(args));
+        return command;
+    }
+
+    /**
+     * @return median wall-clock time of the command in milliseconds.
+     */
+
+    private double medianMillis(List<String> command) throws IOException, InterruptedException {
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run(command);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2] / 1e6;
+    }
+
+    @Test
+    void testOnlySelectedSubCmdIsLoaded() throws IOException, InterruptedException {
+        Files.writeString(dir.resolve("file.txt"), "text");
+        String log = run(command(List.of("-Xlog:class+load=info"), "util.ConsoleParser", "ls", dir.toString()));
+
+        assertTrue(log.contains("util.ConsoleParser$Ls "), log);
+        for (String cls : new String[]{"Ciphxor", "Grep", "Find", "PackRle"}) {
+            assertFalse(log.contains("util.ConsoleParser$" + cls + " "), cls + " should not be loaded for 'ls'");
+        }
+        assertFalse(log.contains("util.ChunkedCipher "));
+        assertFalse(log.contains("org.kohsuke.args4j.spi.SubCommandHandler "));
+    }
+
+    /**
+     * Compares median startup time of a short 'ls' call through the fast dispatch and through the
+     * args4j {@code SubCommandHandler} dispatch it replaced. If the AppCDS archive of 'mvn -Pappcds verify'
+     * exists (paths come from surefire's 'consoleutility.jar' and 'consoleutility.jsa' properties),
+     * also compares the jar with and without it. Opt-in, run with 'mvn test -Dbenchmark=true'.
+     */
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void testStartupTime() throws IOException, InterruptedException {
+        Files.writeString(dir.resolve("file.txt"), "text");
+        String target = dir.toString();
+
+        double legacy = medianMillis(command(List.of(), LegacyMain.class.getName(), "ls", target));
+        double fast = medianMillis(command(List.of(), "util.ConsoleParser", "ls", target));
+        System.out.println("Startup time of 'ls', median of " + RUNS + " runs:");
+        System.out.printf("args4j SubCommandHandler dispatch: %.1f ms%n", legacy);
+        System.out.printf("fast dispatch: %.1f ms (%.1f ms faster)%n", fast, legacy - fast);
+        assertTrue(fast < legacy, "fast dispatch should start faster than the args4j dispatch");
+
+        String jarProperty = System.getProperty("consoleutility.jar");
+        String archiveProperty = System.getProperty("consoleutility.jsa");
+        if (jarProperty != null && archiveProperty != null
+                && Files.isRegularFile(Path.of(jarProperty)) && Files.isRegularFile(Path.of(archiveProperty))) {
+            double jar = medianMillis(List.of(JAVA, "-jar", jarProperty, "ls", target));
+            double appCds = medianMillis(List.of(JAVA, "-XX:SharedArchiveFile=" + archiveProperty,
+                    "-jar", jarProperty, "ls", target));
+            System.out.printf("jar: %.1f ms, jar with AppCDS: %.1f ms (%.1f ms faster)%n", jar, appCds, jar - appCds);
+        } else {
+            System.out.println("AppCDS: no archive, run 'mvn -Pappcds verify'.");
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package util;
 
 import org.junit.jupiter.api.Test;
+import org.kohsuke.args4j.spi.SubCommand;
+import org.kohsuke.args4j.spi.SubCommands;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class ConsoleParserTest {
 
@@ -15,6 +19,22 @@ class ConsoleParserTest {
     String OUTPUT = "C:\\Users\\User\\IdeaProjects\\ConsoleUtility\\out\\artifacts\\ConsoleUtility_jar\\ciphxorTestOutput.txt";
     String GREP_FILE = "C:\\Users\\User\\IdeaProjects\\ConsoleUtility\\out\\artifacts\\ConsoleUtility_jar\\grepTestFile.txt";
 
+    /**
+     * The fast dispatch in {@link ConsoleParser#newSubCmd} must know every subcommand of the args4j table.
+     */
+
+    @Test
+    void testFastDispatchMatchesSubCommands() throws NoSuchFieldException {
+        SubCommands subCommands = ConsoleParser.class.getDeclaredField("subCmd").getAnnotation(SubCommands.class);
+        assertNotNull(subCommands);
+        for (SubCommand sc : subCommands.value()) {
+            Object subCmd = ConsoleParser.newSubCmd(sc.name());
+            assertNotNull(subCmd, "no fast dispatch for '" + sc.name() + "'");
+            assertSame(sc.impl(), subCmd.getClass(), sc.name());
+        }
+        assertNull(ConsoleParser.newSubCmd("unknown"));
+    }
+
     @Test
     void testGrep() {
         String word = "finish";